@@ -32,6 +32,7 @@ public final class Config {
 
     public @NotNull Map<String, String> effects = new LinkedHashMap<>();
     public @NotNull Map<String, Integer> strengths = new LinkedHashMap<>();
+    public @NotNull Map<String, Integer> intervals = new LinkedHashMap<>();
 
     public Config() {}
 
@@ -51,6 +52,7 @@ public final class Config {
 
         private final Map<RegistryKey<ArmorTrimPattern>, RegistryKey<StatusEffect>> effects = new LinkedHashMap<>();
         private final Map<RegistryKey<ArmorTrimMaterial>, Integer> strengths = new LinkedHashMap<>();
+        private final Map<RegistryKey<ArmorTrimMaterial>, Integer> intervals = new LinkedHashMap<>();
 
         private Parsed(@NotNull Config config) {
             secondsMaximum = config.secondsMaximum;
@@ -73,6 +75,15 @@ public final class Config {
                 if (value == null || key == null) continue;
                 strengths.put(RegistryKey.of(RegistryKeys.TRIM_MATERIAL, Identifier.of(key)), value);
             }
+            // Configs written before intervals existed have none, fill in the per-material defaults
+            var configIntervals = new LinkedHashMap<>(DEFAULT.intervals);
+            if (config.intervals != null) configIntervals.putAll(config.intervals);
+            for (var entry : configIntervals.entrySet()) {
+                var key = entry.getKey();
+                var value = entry.getValue();
+                if (value == null || key == null) continue;
+                intervals.put(RegistryKey.of(RegistryKeys.TRIM_MATERIAL, Identifier.of(key)), Math.max(value, 1));
+            }
         }
 
         public double getSecondsMaximum() {
@@ -99,9 +110,18 @@ public final class Config {
         public @NotNull Map<RegistryKey<ArmorTrimMaterial>, Integer> getStrengths() {
             return strengths;
         }
+        public @NotNull Map<RegistryKey<ArmorTrimMaterial>, Integer> getIntervals() {
+            return intervals;
+        }
+
+        public int getInterval(@NotNull RegistryKey<ArmorTrimMaterial> material) {
+            return intervals.getOrDefault(material, DEFAULT_INTERVAL);
+        }
 
     }
 
+    public static final int DEFAULT_INTERVAL = 10;
+
     private static final Config DEFAULT = new Config();
     static {
         DEFAULT.effects.put("spire", "strength");
@@ -132,6 +152,16 @@ public final class Config {
         DEFAULT.strengths.put("amethyst", 0);
         DEFAULT.strengths.put("diamond", 1);
         DEFAULT.strengths.put("netherite", 2);
+        DEFAULT.intervals.put("copper", 20);
+        DEFAULT.intervals.put("iron", 10);
+        DEFAULT.intervals.put("redstone", 5);
+        DEFAULT.intervals.put("lapis", 10);
+        DEFAULT.intervals.put("quartz", 20);
+        DEFAULT.intervals.put("gold", 20);
+        DEFAULT.intervals.put("emerald", 20);
+        DEFAULT.intervals.put("amethyst", 10);
+        DEFAULT.intervals.put("diamond", 20);
+        DEFAULT.intervals.put("netherite", 2);
     }
 
     private static final Gson GSON =
@@ -1,11 +1,9 @@
 package dev.foxgirl.trimeffects;
 
-import net.minecraft.block.Block;
-import net.minecraft.block.BlockState;
-import net.minecraft.block.Blocks;
 import net.minecraft.component.DataComponentTypes;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.effect.StatusEffect;
 import net.minecraft.entity.effect.StatusEffectInstance;
 import net.minecraft.entity.effect.StatusEffects;
 import net.minecraft.entity.mob.PiglinEntity;
@@ -18,7 +16,8 @@ import net.minecraft.item.trim.ArmorTrimMaterial;
 import net.minecraft.registry.DynamicRegistryManager;
 import net.minecraft.registry.RegistryKey;
 import net.minecraft.registry.entry.RegistryEntry;
-import net.minecraft.util.math.BlockPos;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
 import net.minecraft.world.World;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -26,8 +25,9 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.nio.file.Path;
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import static com.mojang.text2speech.Narrator.LOGGER;
@@ -36,6 +36,8 @@ public final class TrimEffects {
 
     public static final Logger LOGGER = LogManager.getLogger("trimeffects");
 
+    private static final int EFFECT_BLINK_TICKS = 200;
+
     private static TrimEffects INSTANCE;
 
     public static @NotNull TrimEffects getInstance() {
@@ -65,6 +67,9 @@ public final class TrimEffects {
     }
 
     public static <T> @NotNull RegistryKey<T> getKey(@NotNull RegistryEntry<T> entry) {
+        if (entry instanceof RegistryEntry.Reference<T> reference) {
+            return reference.registryKey(); // Avoids allocating an Optional on the hot path
+        }
         return entry.getKey().orElseThrow();
     }
 
@@ -72,146 +77,191 @@ public final class TrimEffects {
         return stack.get(DataComponentTypes.TRIM);
     }
 
-    private record Trim(@NotNull ArmorTrim trim) {
-        private static Trim from(@NotNull DynamicRegistryManager manager, @NotNull ItemStack stack) {
-            var trim = getTrim(manager, stack);
-            return trim == null ? null : new Trim(trim);
-        }
+    private final Map<RegistryKey<World>, WorldContext> worldContexts = new HashMap<>();
+
+    public void handleServerStopped() {
+        // Contexts hold on to their ServerWorld and beacon index, drop them with the server
+        worldContexts.clear();
+    }
 
-        private @NotNull RegistryEntry<ArmorTrimMaterial> getMaterial() {
-            return trim.getMaterial();
+    public long getAvoidedChunkLoads() {
+        long total = 0;
+        for (var context : worldContexts.values()) {
+            total += context.getAvoidedChunkLoads();
         }
+        return total;
+    }
 
-        @Override
-        public boolean equals(Object obj) {
-            if (obj == this) return true;
-            if (obj == null || getClass() != obj.getClass()) return false;
-            var that = (Trim) obj;
-            return Objects.equals(this.getMaterial(), that.getMaterial());
+    public @NotNull WorldContext getWorldContext(@NotNull ServerWorld world) {
+        var context = worldContexts.computeIfAbsent(world.getRegistryKey(), key -> new WorldContext());
+        if (!context.isCurrent(world)) {
+            context.update(world);
         }
+        return context;
+    }
+
+    /**
+     * Per-player scheduling state, owned by the player mixin so the dispatcher
+     * can skip the armor scan entirely on ticks where no handler is due.
+     */
+    public static final class PlayerState {
+        private int nextAge;
+
+        public PlayerState() {}
     }
 
-    public void handleTick(LivingEntity player) {
-        var manager = getRegistryManager(player);
+    public void handleTick(LivingEntity player, PlayerState state) {
+        // Cheap due check first, nothing below runs until the earliest matched material is due
+        int age = player.age;
+        if (age < state.nextAge) return;
 
+        // Rescan armor at the default cadence while no material is matched
+        state.nextAge = age + Config.DEFAULT_INTERVAL;
+
+        var context = getWorldContext((ServerWorld) player.getWorld());
+        var manager = context.getRegistryManager();
+
+        // Indexed loops over the armor list instead of arrays and streams
         var armor = (List<ItemStack>) player.getArmorItems();
-        var trims = new Trim[armor.size()];
+        int length = armor.size();
 
-        for (int i = 0, length = trims.length; i < length; i++) {
-            trims[i] = Trim.from(manager, armor.get(i));
+        for (int i = 0; i < length; i++) {
+            if (getTrim(manager, armor.get(i)) == null) return; // Check if all armor pieces have trims
         }
 
-        boolean fullSet = Arrays.stream(trims).allMatch(Objects::nonNull); // Check if all armor pieces have trims
-        if (fullSet) {
-            for (Trim trim : trims) {
-                if (trim == null) continue;
-                int count = (int) Arrays.stream(trims).filter(t -> Objects.equals(t, trim)).count();
-                if (count >= getConfig().getMinimumMatchingTrims()) {
-                    handleTickForTrim(player, trim);
+        outer:
+        for (int i = 0; i < length; i++) {
+            var material = getTrim(manager, armor.get(i)).getMaterial();
+            // Run each material once per evaluation, skip pieces whose material an earlier piece already had
+            for (int j = 0; j < i; j++) {
+                if (Objects.equals(material, getTrim(manager, armor.get(j)).getMaterial())) continue outer;
+            }
+            int count = 1;
+            for (int j = i + 1; j < length; j++) {
+                if (Objects.equals(material, getTrim(manager, armor.get(j)).getMaterial())) count++;
+            }
+            if (count >= getConfig().getMinimumMatchingTrims()) {
+                var key = getKey(material);
+
+                // Each material is evaluated on its own cadence, skip it until it is due
+                int interval = getConfig().getInterval(key);
+                if (age % interval == 0) {
+                    handleTickForTrim(player, key, interval, context);
                 }
+                state.nextAge = Math.min(state.nextAge, age + interval - age % interval);
             }
         }
     }
 
-    private void handleTickForTrim(LivingEntity player, Trim trim) {
-        var manager = getRegistryManager(player);
-        var material = getKey(trim.getMaterial());
+    private void handleTickForTrim(LivingEntity player, RegistryKey<ArmorTrimMaterial> material, int interval, WorldContext context) {
+        // Switch on the identifier path directly, building the full "namespace:path" string allocates
+        var id = material.getValue();
+        if (!Identifier.DEFAULT_NAMESPACE.equals(id.getNamespace())) return;
 
-        switch (material.getValue().toString()) {
-            case "minecraft:diamond":
-                applyDiamondEffect(player);
+        switch (id.getPath()) {
+            case "diamond":
+                applyDiamondEffect(player, context, interval);
                 break;
-            case "minecraft:netherite":
-                applyNetheriteEffect(player);
+            case "netherite":
+                applyNetheriteEffect(player, context, interval);
                 break;
-            case "minecraft:redstone":
-                applyRedstoneEffect(player);
+            case "redstone":
+                applyRedstoneEffect(player, context, interval);
                 break;
-            case "minecraft:quartz":
-                applyQuartzEffect(player);
+            case "quartz":
+                applyQuartzEffect(player, context, interval);
                 break;
-            case "minecraft:emerald":
-                applyEmeraldEffect(player);
+            case "emerald":
+                applyEmeraldEffect(player, context, interval);
                 break;
-            case "minecraft:lapis":
-                applyLapisEffect(player);
+            case "lapis":
+                applyLapisEffect(player, context, interval);
                 break;
-            case "minecraft:copper":
-                applyCopperEffect(player);
+            case "copper":
+                applyCopperEffect(player, context, interval);
                 break;
-            case "minecraft:iron":
-                applyIronEffect(player);
+            case "iron":
+                applyIronEffect(player, context, interval);
                 break;
-            case "minecraft:gold":
-                applyGoldEffect(player);
+            case "gold":
+                applyGoldEffect(player, context, interval);
                 break;
-            case "minecraft:amethyst":
-                applyAmethystEffect(player);
+            case "amethyst":
+                applyAmethystEffect(player, context, interval);
                 break;
             default:
                 break;
         }
     }
 
+    // Re-adding an effect allocates a new instance and sends an update packet, so only refresh it once
+    // the next evaluation could find it below the 200 tick threshold where the client starts blinking
+    // the icon and flickering night vision. Effects too short to stay above it refresh once per interval.
+    private static void applyEffect(LivingEntity player, RegistryEntry<StatusEffect> effect, int duration, int amplifier, int interval) {
+        var current = player.getStatusEffect(effect);
+        int threshold = Math.min(EFFECT_BLINK_TICKS + interval, duration - interval);
+        if (current != null && current.getAmplifier() == amplifier && current.getDuration() > threshold) {
+            return;
+        }
+        player.addStatusEffect(new StatusEffectInstance(effect, duration, amplifier, false, true));
+    }
+
     // Method to check if the player is in a cave (below y-level 45 or in low light)
-    private static boolean isInCave(LivingEntity player) {
-        return player.getBlockY() < 45 || player.getWorld().getLightLevel(player.getBlockPos()) < 7;  // Low light level indicating a cave
+    private static boolean isInCave(LivingEntity player, WorldContext context) {
+        if (player.getBlockY() < 45) return true;
+        int light = context.getLightLevel(player.getBlockPos());  // -1 when the chunk is not loaded
+        return light >= 0 && light < 7;  // Low light level indicating a cave
     }
 
     // Method to check if the player is near a Haste II beacon
-    private static boolean isNearHaste2Beacon(PlayerEntity player) {
-        BlockPos pos = player.getBlockPos();
+    private static boolean isNearHaste2Beacon(PlayerEntity player, WorldContext context) {
         int radius = 50;  // Set range for detecting the beacon
-        for (BlockPos beaconPos : BlockPos.iterateOutwards(pos, radius, radius, radius)) {
-            BlockState state = player.getWorld().getBlockState(beaconPos);
-            if (state.isOf(Blocks.BEACON)) {
-                LOGGER.info("Beacon with Haste II detected nearby");
-                return true;  // Assuming the beacon has Haste II for simplicity
-            }
+        if (context.isNearBeacon(player.getBlockPos(), radius)) {
+            LOGGER.debug("Beacon with Haste II detected nearby");
+            return true;  // Assuming the beacon has Haste II for simplicity
         }
         return false;
     }
 
     // Diamond Trim Effects
-    private static void applyDiamondEffect(LivingEntity player) {
+    private static void applyDiamondEffect(LivingEntity player, WorldContext context, int interval) {
         // Always apply Haste II
-        player.addStatusEffect(new StatusEffectInstance(StatusEffects.HASTE, 300, 2, false, true));  // Haste III
+        applyEffect(player, StatusEffects.HASTE, 300, 2, interval);  // Haste III
 
         // Apply Night Vision when the player is below y-level 45 or in a cave
-        if (isInCave(player)) {
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.NIGHT_VISION, 300, 0, false, true));  // Night Vision
-            LOGGER.info("Diamond Trim: Night Vision applied due to being in a cave or below level 45");
+        if (isInCave(player, context)) {
+            applyEffect(player, StatusEffects.NIGHT_VISION, 300, 0, interval);  // Night Vision
+            LOGGER.debug("Diamond Trim: Night Vision applied due to being in a cave or below level 45");
         }
 
         // Apply Haste III when near a Haste II beacon
-        if (isNearHaste2Beacon((PlayerEntity) player)) {
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.HASTE, 300, 2, false, true));  // Haste III
-            LOGGER.info("Diamond Trim: Haste III applied due to being near a Haste II beacon.");
+        if (isNearHaste2Beacon((PlayerEntity) player, context)) {
+            applyEffect(player, StatusEffects.HASTE, 300, 2, interval);  // Haste III
+            LOGGER.debug("Diamond Trim: Haste III applied due to being near a Haste II beacon.");
         }
     }
 
 
     // Gold Trim Effects
-    private static void applyGoldEffect(LivingEntity player) {
+    private static void applyGoldEffect(LivingEntity player, WorldContext context, int interval) {
         // Always apply Luck II
-        player.addStatusEffect(new StatusEffectInstance(StatusEffects.LUCK, 300, 1, false, true));  // Constant Luck II
+        applyEffect(player, StatusEffects.LUCK, 300, 1, interval);  // Constant Luck II
 
         // Apply Haste III when near a Haste II beacon and below y-level 0
-        if (player.getBlockY() < 0 && isNearHaste2Beacon((PlayerEntity) player)) {
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.HASTE, 300, 3, false,
-                true));  // Haste III
-            LOGGER.info("Gold Trim: Haste III applied due to being near a Haste II beacon and below y-level 0.");
+        if (player.getBlockY() < 0 && isNearHaste2Beacon((PlayerEntity) player, context)) {
+            applyEffect(player, StatusEffects.HASTE, 300, 3, interval);  // Haste III
+            LOGGER.debug("Gold Trim: Haste III applied due to being near a Haste II beacon and below y-level 0.");
         }
 
         // Prevent Piglins from attacking the player
         if (player instanceof PlayerEntity) {
-            List<PiglinEntity> nearbyPiglins = player.getWorld().getEntitiesByClass(PiglinEntity.class,
+            List<PiglinEntity> nearbyPiglins = context.getEntitiesByClass(PiglinEntity.class,
                 player.getBoundingBox().expand(10), piglin -> true);
             for (PiglinEntity piglin : nearbyPiglins) {
                 if (piglin.isAngryAt((PlayerEntity) player)) {
                     piglin.setAttacking(null);  // Stop attacking the player
                     piglin.setTarget(null);     // Clear the target
-                    LOGGER.info("Gold Trim: Preventing Piglins from attacking the player due to Gold Trim effect.");
+                    LOGGER.debug("Gold Trim: Preventing Piglins from attacking the player due to Gold Trim effect.");
                 }
             }
         }
@@ -219,7 +269,7 @@ public final class TrimEffects {
 
 
     // Amethyst Trim Effects
-    private static void applyAmethystEffect(LivingEntity player) {
+    private static void applyAmethystEffect(LivingEntity player, WorldContext context, int interval) {
         // Apply increasing speed boost while sprinting
         if (player.isSprinting()) {
             // Max out at Speed III (2)
@@ -228,88 +278,90 @@ public final class TrimEffects {
             if (speedEffect != null) {
                 currentSpeedLevel = speedEffect.getAmplifier();
             }
-            int newSpeedLevel = Math.min(currentSpeedLevel + 1, 2);  // Speed III is level 2
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.SPEED, 300, newSpeedLevel, false, true));  // Increase speed level
-            LOGGER.info("Amethyst Trim: Speed boost increased to level " + (newSpeedLevel + 1) + " while sprinting");
+            // Climb one level per 10 ticks whatever the interval, only the first evaluation in each 10 tick window counts
+            int steps = player.age % 10 < interval ? Math.max(interval / 10, 1) : 0;
+            int newSpeedLevel = Math.min(currentSpeedLevel + steps, 2);  // Speed III is level 2
+            applyEffect(player, StatusEffects.SPEED, 300, newSpeedLevel, interval);  // Increase speed level
+            LOGGER.debug("Amethyst Trim: Speed boost increased to level {} while sprinting", newSpeedLevel + 1);
         }
 
         // Apply damage reduction
-        player.addStatusEffect(new StatusEffectInstance(StatusEffects.RESISTANCE, 300, 0, false, true));  // Resistance I (10% damage reduction)
-        LOGGER.info("Amethyst Trim: 10% damage reduction applied");
+        applyEffect(player, StatusEffects.RESISTANCE, 300, 0, interval);  // Resistance I (10% damage reduction)
+        LOGGER.debug("Amethyst Trim: 10% damage reduction applied");
     }
 
 
     // Redstone Trim Effects (Enhanced)
-    private static void applyRedstoneEffect(LivingEntity player) {
+    private static void applyRedstoneEffect(LivingEntity player, WorldContext context, int interval) {
         if (player.hurtTime > 0) {
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.SPEED, 300, 0));  // Speed I for 15 seconds
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.STRENGTH, 300, 0));  // Strength I for 15 seconds
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.HASTE, 300, 0));  // Haste I for 15 seconds
+            applyEffect(player, StatusEffects.SPEED, 300, 0, interval);  // Speed I for 15 seconds
+            applyEffect(player, StatusEffects.STRENGTH, 300, 0, interval);  // Strength I for 15 seconds
+            applyEffect(player, StatusEffects.HASTE, 300, 0, interval);  // Haste I for 15 seconds
         }
     }
 
     // Quartz Trim Effects
-    private static void applyQuartzEffect(LivingEntity player) {
-        if (player.getWorld().getRegistryKey() == World.NETHER) {  // Nether check
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.REGENERATION, 300, 0, false, true));  // Regeneration I for 15 seconds
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.RESISTANCE, 300, 0, false, true));  // Resistance I for 15 seconds
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.HASTE, 300, 1, false, true));  // Haste II for 15 seconds
+    private static void applyQuartzEffect(LivingEntity player, WorldContext context, int interval) {
+        if (context.isNether()) {  // Nether check
+            applyEffect(player, StatusEffects.REGENERATION, 300, 0, interval);  // Regeneration I for 15 seconds
+            applyEffect(player, StatusEffects.RESISTANCE, 300, 0, interval);  // Resistance I for 15 seconds
+            applyEffect(player, StatusEffects.HASTE, 300, 1, interval);  // Haste II for 15 seconds
         }
     }
 
     // Emerald Trim Effects
-    private static void applyEmeraldEffect(LivingEntity player) {
-        List<VillagerEntity> nearbyVillagers = player.getWorld().getEntitiesByClass(VillagerEntity.class,
+    private static void applyEmeraldEffect(LivingEntity player, WorldContext context, int interval) {
+        List<VillagerEntity> nearbyVillagers = context.getEntitiesByClass(VillagerEntity.class,
             player.getBoundingBox().expand(10), entity -> entity instanceof VillagerEntity);
 
         if (!nearbyVillagers.isEmpty()) {
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.HERO_OF_THE_VILLAGE, 300, 0, false, true));  // Hero of the Village for 15 seconds
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.RESISTANCE, 300, 0, false, true));  // Resistance I for 15 seconds
+            applyEffect(player, StatusEffects.HERO_OF_THE_VILLAGE, 300, 0, interval);  // Hero of the Village for 15 seconds
+            applyEffect(player, StatusEffects.RESISTANCE, 300, 0, interval);  // Resistance I for 15 seconds
         }
     }
 
     // Lapis Trim Effects
-    private static void applyLapisEffect(LivingEntity player) {
-        player.addStatusEffect(new StatusEffectInstance(StatusEffects.LUCK, 300, 1, false, true));  // Luck II
+    private static void applyLapisEffect(LivingEntity player, WorldContext context, int interval) {
+        applyEffect(player, StatusEffects.LUCK, 300, 1, interval);  // Luck II
 
         if (player.getAir() < player.getMaxAir()) {  // Underwater check
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.DOLPHINS_GRACE, 300, 0, false, true));  // Dolphin's Grace
+            applyEffect(player, StatusEffects.DOLPHINS_GRACE, 300, 0, interval);  // Dolphin's Grace
         }
 
         if (player instanceof PlayerEntity) {
             PlayerEntity playerEntity = (PlayerEntity) player;
-            int xpBonus = (int) (playerEntity.experienceProgress * 0.50 * playerEntity.getNextLevelExperience());
-            playerEntity.addExperience(xpBonus); // XP Boost
+            int xpBonus = (int) (playerEntity.experienceProgress * 0.50 * playerEntity.getNextLevelExperience() * interval / 10.0);
+            playerEntity.addExperience(xpBonus); // XP Boost, scaled so the rate matches one bonus every 10 ticks
         }
     }
 
     // Copper Trim Effects
-    private static void applyCopperEffect(LivingEntity player) {
-        if (player.getWorld().isThundering() && player.getWorld().random.nextFloat() < 0.05f) {
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.STRENGTH, 600, 1, false, true));  // Strength II
+    private static void applyCopperEffect(LivingEntity player, WorldContext context, int interval) {
+        if (context.isThundering() && context.getWorld().random.nextFloat() < 1.0 - Math.pow(0.95, interval / 10.0)) {  // 5% chance every 10 ticks
+            applyEffect(player, StatusEffects.STRENGTH, 600, 1, interval);  // Strength II
         }
-        player.addStatusEffect(new StatusEffectInstance(StatusEffects.SPEED, 600, 1, false, true));  // Speed II
-        player.addStatusEffect(new StatusEffectInstance(StatusEffects.HASTE, 600, 1, false, true));  // Haste II for 5 minutes
+        applyEffect(player, StatusEffects.SPEED, 600, 1, interval);  // Speed II
+        applyEffect(player, StatusEffects.HASTE, 600, 1, interval);  // Haste II for 5 minutes
     }
 
     // Iron Trim Effects
-    private static void applyIronEffect(LivingEntity player) {
+    private static void applyIronEffect(LivingEntity player, WorldContext context, int interval) {
         if (player.getHealth() < 6.0F) {
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.RESISTANCE, 300, 0, false, true));  // Resistance I
+            applyEffect(player, StatusEffects.RESISTANCE, 300, 0, interval);  // Resistance I
         }
         if (player.getHealth() < (player.getMaxHealth() / 2)) {
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.STRENGTH, 300, 0, false, true));  // Strength
+            applyEffect(player, StatusEffects.STRENGTH, 300, 0, interval);  // Strength
         }
         if (player.getBlockY() < 64) {  // Underground check
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.HASTE, 200, 0, false, true));  // Haste I
+            applyEffect(player, StatusEffects.HASTE, 200, 0, interval);  // Haste I
         }
     }
 
     // Netherite Trim Effects
-    private static void applyNetheriteEffect(LivingEntity player) {
+    private static void applyNetheriteEffect(LivingEntity player, WorldContext context, int interval) {
         if (player.isInLava() || player.isOnFire()) {
-            player.heal(1.0F);  // Heal 1 health point
-            player.addStatusEffect(new StatusEffectInstance(StatusEffects.FIRE_RESISTANCE, 300, 0, false, true));  // Fire Resistance
+            player.heal(interval / 10.0F);  // Heal 1 health point every 10 ticks
+            applyEffect(player, StatusEffects.FIRE_RESISTANCE, 300, 0, interval);  // Fire Resistance
         }
     }
 }
@@ -0,0 +1,176 @@
+package dev.foxgirl.trimeffects;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.entity.BeaconBlockEntity;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.entity.Entity;
+import net.minecraft.registry.DynamicRegistryManager;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * World-level facts shared by every player in a dimension, computed at most
+ * once per server tick and reused by all trim handlers evaluated that tick.
+ */
+public final class WorldContext {
+
+    private ServerWorld world;
+    private int tick = -1;
+
+    private RegistryKey<World> dimension;
+    private DynamicRegistryManager registryManager;
+
+    private boolean nether;
+    private boolean thundering;
+    private long time;
+
+    // Lookups that hit an unloaded chunk and were answered as "unknown" instead of loading it
+    private long avoidedChunkLoads;
+
+    // Chunks scanned for beacons this tick and the packed positions of the beacons found in them,
+    // filled lazily as players query nearby chunks and cleared without releasing their storage
+    private final LongOpenHashSet scannedChunks = new LongOpenHashSet();
+    private final LongArrayList beacons = new LongArrayList();
+
+    // Map.forEach with a reused consumer avoids allocating an iterator for every scanned chunk
+    private final BiConsumer<BlockPos, BlockEntity> beaconCollector = (pos, blockEntity) -> {
+        if (blockEntity instanceof BeaconBlockEntity) {
+            beacons.add(pos.asLong());
+        }
+    };
+
+    WorldContext() {}
+
+    boolean isCurrent(@NotNull ServerWorld world) {
+        return this.world == world && this.tick == world.getServer().getTicks();
+    }
+
+    void update(@NotNull ServerWorld world) {
+        Objects.requireNonNull(world, "Argument 'world'");
+
+        this.world = world;
+        this.tick = world.getServer().getTicks();
+
+        dimension = world.getRegistryKey();
+        registryManager = world.getRegistryManager();
+
+        nether = dimension == World.NETHER;
+        thundering = world.isThundering();
+        time = world.getTime();
+
+        scannedChunks.clear();
+        beacons.clear();
+    }
+
+    public @NotNull ServerWorld getWorld() {
+        return world;
+    }
+
+    public @NotNull RegistryKey<World> getDimension() {
+        return dimension;
+    }
+    public @NotNull DynamicRegistryManager getRegistryManager() {
+        return registryManager;
+    }
+
+    public boolean isNether() {
+        return nether;
+    }
+    public boolean isThundering() {
+        return thundering;
+    }
+    public long getTime() {
+        return time;
+    }
+
+    public long getAvoidedChunkLoads() {
+        return avoidedChunkLoads;
+    }
+
+    /**
+     * Gets a chunk only if it is already fully loaded, never loading or
+     * generating it. Trim effects must not stall the server thread, so every
+     * block lookup goes through here and treats a missing chunk as unknown.
+     */
+    public @Nullable WorldChunk getLoadedChunk(int chunkX, int chunkZ) {
+        var chunk = world.getChunkManager().getWorldChunk(chunkX, chunkZ);
+        if (chunk == null) {
+            avoidedChunkLoads++;
+        }
+        return chunk;
+    }
+
+    /**
+     * Gets the light level at the position, or -1 if its chunk is not loaded.
+     */
+    public int getLightLevel(@NotNull BlockPos pos) {
+        if (getLoadedChunk(ChunkSectionPos.getSectionCoord(pos.getX()), ChunkSectionPos.getSectionCoord(pos.getZ())) == null) {
+            return -1;
+        }
+        return world.getLightLevel(pos);
+    }
+
+    /**
+     * Finds entities in the box. Entity lookups only read already tracked
+     * entity sections, so they cannot cause chunk loads.
+     */
+    public <T extends Entity> @NotNull List<T> getEntitiesByClass(@NotNull Class<T> type, @NotNull Box box, @NotNull Predicate<? super T> predicate) {
+        return world.getEntitiesByClass(type, box, predicate);
+    }
+
+    /**
+     * Checks whether a beacon lies within the cube of the given radius around
+     * the position, using the block entities of the surrounding chunks.
+     * Chunks that are not loaded are treated as having no beacons.
+     */
+    public boolean isNearBeacon(@NotNull BlockPos pos, int radius) {
+        int minChunkX = (pos.getX() - radius) >> 4;
+        int maxChunkX = (pos.getX() + radius) >> 4;
+        int minChunkZ = (pos.getZ() - radius) >> 4;
+        int maxChunkZ = (pos.getZ() + radius) >> 4;
+
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                scanBeacons(chunkX, chunkZ);
+            }
+        }
+
+        // Beacons from chunks outside the range simply fail the distance check
+        for (int i = 0, size = beacons.size(); i < size; i++) {
+            long beaconPos = beacons.getLong(i);
+            if (
+                Math.abs(BlockPos.unpackLongX(beaconPos) - pos.getX()) <= radius &&
+                Math.abs(BlockPos.unpackLongY(beaconPos) - pos.getY()) <= radius &&
+                Math.abs(BlockPos.unpackLongZ(beaconPos) - pos.getZ()) <= radius
+            ) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void scanBeacons(int chunkX, int chunkZ) {
+        if (!scannedChunks.add(ChunkPos.toLong(chunkX, chunkZ))) return;
+
+        var chunk = getLoadedChunk(chunkX, chunkZ);
+        if (chunk != null) {
+            chunk.getBlockEntities().forEach(beaconCollector);
+        }
+    }
+
+}
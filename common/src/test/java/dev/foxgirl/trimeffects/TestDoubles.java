@@ -0,0 +1,231 @@
+package dev.foxgirl.trimeffects;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
+import net.bytebuddy.implementation.ExceptionMethod;
+import net.bytebuddy.implementation.FixedValue;
+import net.bytebuddy.implementation.MethodDelegation;
+import net.bytebuddy.implementation.StubMethod;
+import net.minecraft.block.entity.BeaconBlockEntity;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.effect.StatusEffect;
+import net.minecraft.entity.effect.StatusEffectInstance;
+import net.minecraft.item.ItemStack;
+import net.minecraft.registry.DynamicRegistryManager;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerChunkManager;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+import org.jetbrains.annotations.NotNull;
+import org.objenesis.Objenesis;
+import org.objenesis.ObjenesisStd;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static net.bytebuddy.matcher.ElementMatchers.isAbstract;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
+
+/**
+ * Allocation-free test doubles for the game objects trim handlers touch.
+ * Mockito records every invocation, so calls on its mocks allocate on their
+ * own and would hide the code under test. These doubles are generated
+ * subclasses that return preallocated values, created without running any
+ * game constructor.
+ */
+public final class TestDoubles {
+
+    private static final Objenesis OBJENESIS = new ObjenesisStd();
+
+    private TestDoubles() {}
+
+    private static <T> @NotNull T create(@NotNull Class<T> type, @NotNull UnaryOperator<DynamicType.Builder<T>> overrides) {
+        var builder = new ByteBuddy()
+            .subclass(type, ConstructorStrategy.Default.NO_CONSTRUCTORS)
+            .method(isAbstract()).intercept(ExceptionMethod.throwing(UnsupportedOperationException.class));
+        Class<? extends T> generated = overrides.apply(builder)
+            .make()
+            .load(type.getClassLoader())
+            .getLoaded();
+        return OBJENESIS.newInstance(generated);
+    }
+
+    private static void setField(@NotNull Object target, @NotNull Class<?> owner, @NotNull String name, Object value) {
+        try {
+            Field field = owner.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException cause) {
+            throw new IllegalStateException("Failed to set field '" + name + "'", cause);
+        }
+    }
+
+    /**
+     * Server tick counter shared by a world double, advanced by {@link Scene#advance(int)}.
+     */
+    public static final class Clock {
+        private int ticks;
+
+        public int getTicks() {
+            return ticks;
+        }
+    }
+
+    /**
+     * Status effects held by a player double, stored in fixed arrays so the
+     * store itself never allocates. Durations count down as the scene
+     * advances and expired effects are removed, like the game does.
+     */
+    public static final class EffectStore {
+        private static final VarHandle DURATION;
+        static {
+            try {
+                DURATION = MethodHandles
+                    .privateLookupIn(StatusEffectInstance.class, MethodHandles.lookup())
+                    .findVarHandle(StatusEffectInstance.class, "duration", int.class);
+            } catch (ReflectiveOperationException cause) {
+                throw new ExceptionInInitializerError(cause);
+            }
+        }
+
+        private final RegistryEntry<?>[] types = new RegistryEntry<?>[32];
+        private final StatusEffectInstance[] instances = new StatusEffectInstance[32];
+
+        private int indexOf(RegistryEntry<?> type) {
+            for (int i = 0; i < types.length; i++) {
+                if (types[i] == type) return i;
+            }
+            return -1;
+        }
+
+        public StatusEffectInstance getStatusEffect(RegistryEntry<StatusEffect> effect) {
+            int i = indexOf(effect);
+            return i < 0 ? null : instances[i];
+        }
+
+        public boolean addStatusEffect(StatusEffectInstance effect, Entity source) {
+            int i = indexOf(effect.getEffectType());
+            if (i < 0) i = indexOf(null);
+            types[i] = effect.getEffectType();
+            instances[i] = effect;
+            return true;
+        }
+
+        private void advance(int ticks) {
+            for (int i = 0; i < instances.length; i++) {
+                var instance = instances[i];
+                if (instance == null) continue;
+                int duration = instance.getDuration() - ticks;
+                if (duration > 0) {
+                    DURATION.set(instance, duration);
+                } else {
+                    types[i] = null;
+                    instances[i] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * A player double together with its world, advanced in lockstep: the
+     * player's age, the server tick and effect durations all move together.
+     */
+    public static final class Scene {
+        public final ServerWorld world;
+        public final ServerPlayerEntity player;
+
+        private final Clock clock;
+        private final EffectStore effects;
+
+        private Scene(ServerWorld world, ServerPlayerEntity player, Clock clock, EffectStore effects) {
+            this.world = world;
+            this.player = player;
+            this.clock = clock;
+            this.effects = effects;
+        }
+
+        public void advance(int ticks) {
+            player.age += ticks;
+            clock.ticks += ticks;
+            effects.advance(ticks);
+        }
+    }
+
+    /**
+     * Chunk whose only block entity is a beacon at the given position.
+     */
+    private static @NotNull WorldChunk chunkWithBeacon(@NotNull BlockPos beaconPos) {
+        var beacon = OBJENESIS.newInstance(BeaconBlockEntity.class);
+        setField(beacon, BlockEntity.class, "pos", beaconPos);
+        var blockEntities = new HashMap<BlockPos, BlockEntity>();
+        blockEntities.put(beaconPos, beacon);
+        return create(WorldChunk.class, builder -> builder
+            .method(named("getBlockEntities")).intercept(FixedValue.value(blockEntities)));
+    }
+
+    /**
+     * World whose entity queries always come back empty. When chunks are
+     * loaded, every chunk is the same fully lit chunk holding a beacon next
+     * to the player; otherwise every block lookup takes the "unknown" path.
+     */
+    private static @NotNull ServerWorld world(@NotNull RegistryKey<World> dimension, @NotNull Clock clock, @NotNull BlockPos pos, boolean loaded) {
+        var server = create(MinecraftServer.class, builder -> builder
+            .method(named("getTicks")).intercept(MethodDelegation.withDefaultConfiguration().filter(named("getTicks")).to(clock)));
+        var chunk = loaded ? chunkWithBeacon(pos.add(3, 0, 3)) : null;
+        var chunkManager = create(ServerChunkManager.class, builder -> builder
+            .method(named("getWorldChunk").and(takesArguments(2))).intercept(chunk == null ? FixedValue.nullValue() : FixedValue.value(chunk)));
+        return create(ServerWorld.class, builder -> builder
+            .method(named("getServer")).intercept(FixedValue.value(server))
+            .method(named("getRegistryKey")).intercept(FixedValue.value(dimension))
+            .method(named("getRegistryManager")).intercept(FixedValue.value(DynamicRegistryManager.EMPTY))
+            .method(named("isThundering")).intercept(FixedValue.value(false))
+            .method(named("getTime")).intercept(FixedValue.value(0L))
+            .method(named("getChunkManager")).intercept(FixedValue.value(chunkManager))
+            .method(named("getLightLevel")).intercept(FixedValue.value(15))
+            .method(named("getEntitiesByClass")).intercept(FixedValue.value(List.of())));
+    }
+
+    /**
+     * Player wearing the given armor in a fresh world, standing at the
+     * position and in a state that takes every conditional branch the
+     * handlers have (sprinting, hurt, low health, in lava).
+     */
+    public static @NotNull Scene scene(@NotNull RegistryKey<World> dimension, @NotNull List<ItemStack> armor, @NotNull BlockPos pos, boolean loaded) {
+        var clock = new Clock();
+        var world = world(dimension, clock, pos, loaded);
+        var effects = new EffectStore();
+        var player = create(ServerPlayerEntity.class, builder -> builder
+            .method(named("getWorld")).intercept(FixedValue.value(world))
+            .method(named("getArmorItems")).intercept(FixedValue.value(armor))
+            .method(named("getStatusEffect")).intercept(MethodDelegation.withDefaultConfiguration().filter(named("getStatusEffect")).to(effects))
+            .method(named("addStatusEffect").and(takesArguments(2))).intercept(MethodDelegation.withDefaultConfiguration().filter(named("addStatusEffect")).to(effects))
+            .method(named("isSprinting")).intercept(FixedValue.value(true))
+            .method(named("getHealth")).intercept(FixedValue.value(5.0F))
+            .method(named("getAttributeValue")).intercept(FixedValue.value(20.0))
+            .method(named("isInLava")).intercept(FixedValue.value(true))
+            .method(named("isOnFire")).intercept(FixedValue.value(false))
+            .method(named("getAir")).intercept(FixedValue.value(300))
+            .method(named("getMaxAir")).intercept(FixedValue.value(300))
+            .method(named("heal")).intercept(StubMethod.INSTANCE)
+            .method(named("addExperience")).intercept(StubMethod.INSTANCE));
+        setField(player, Entity.class, "blockPos", pos);
+        setField(player, Entity.class, "boundingBox", new Box(pos));
+        player.hurtTime = 5;
+        player.experienceProgress = 0.5F;
+        return new Scene(world, player, clock, effects);
+    }
+
+}
@@ -0,0 +1,190 @@
+package dev.foxgirl.trimeffects;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.component.DataComponentTypes;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.item.trim.ArmorTrim;
+import net.minecraft.item.trim.ArmorTrimMaterial;
+import net.minecraft.item.trim.ArmorTrimPattern;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.registry.entry.RegistryEntryOwner;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Guards the trim tick path against allocating in steady state. Each test
+ * warms the path up so the JIT has compiled it, then measures the bytes the
+ * test thread allocates across many calls and checks the total against a
+ * declared budget. The doubles advance the server tick and count effect
+ * durations down between calls, so world context updates and effect
+ * refreshes happen at the rate they would in game.
+ */
+public final class TrimEffectsAllocationTest {
+
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 20_000;
+
+    // Every default interval divides this, so each step makes every material due
+    private static final int DUE_STEP = 20;
+
+    // Upper bound for one refresh, a StatusEffectInstance and its fading state
+    private static final long STATUS_EFFECT_BYTES = 128;
+
+    // Gold and emerald expand the player's bounding box into a new Box for their entity queries
+    private static final long ENTITY_QUERY_BYTES = 64;
+
+    // Effects each handler keeps applied for the doubles' player, with their duration
+    private record Budget(int effects, int duration, long extraBytes) {}
+
+    private static final Map<String, Budget> BUDGETS = Map.of(
+        "diamond", new Budget(1, 300, 0),
+        "netherite", new Budget(1, 300, 0),
+        "redstone", new Budget(3, 300, 0),
+        "quartz", new Budget(3, 300, 0),
+        "emerald", new Budget(0, 300, ENTITY_QUERY_BYTES),
+        "lapis", new Budget(1, 300, 0),
+        "copper", new Budget(2, 600, 0),
+        "iron", new Budget(2, 300, 0),
+        "gold", new Budget(1, 300, ENTITY_QUERY_BYTES),
+        "amethyst", new Budget(2, 300, 0)
+    );
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @TempDir
+    static Path configDirectory;
+
+    private static TrimEffects trimEffects;
+
+    @BeforeAll
+    static void setup() {
+        assumeTrue(THREADS.isThreadAllocatedMemorySupported(), "Thread allocation accounting unsupported");
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+
+        trimEffects = TrimEffects.createInstance();
+        trimEffects.initialize(configDirectory);
+    }
+
+    @AfterEach
+    void teardown() {
+        trimEffects.handleServerStopped();
+    }
+
+    private static List<ItemStack> armor(String material) {
+        RegistryEntryOwner<ArmorTrimMaterial> materialOwner = new RegistryEntryOwner<>() {};
+        RegistryEntryOwner<ArmorTrimPattern> patternOwner = new RegistryEntryOwner<>() {};
+        var trim = new ArmorTrim(
+            RegistryEntry.Reference.standAlone(materialOwner, RegistryKey.of(RegistryKeys.TRIM_MATERIAL, Identifier.ofVanilla(material))),
+            RegistryEntry.Reference.standAlone(patternOwner, RegistryKey.of(RegistryKeys.TRIM_PATTERN, Identifier.ofVanilla("sentry")))
+        );
+        return List.of(
+            trimmed(Items.DIAMOND_BOOTS, trim),
+            trimmed(Items.DIAMOND_LEGGINGS, trim),
+            trimmed(Items.DIAMOND_CHESTPLATE, trim),
+            trimmed(Items.DIAMOND_HELMET, trim)
+        );
+    }
+
+    private static ItemStack trimmed(Item item, ArmorTrim trim) {
+        var stack = new ItemStack(item);
+        stack.set(DataComponentTypes.TRIM, trim);
+        return stack;
+    }
+
+    private static TestDoubles.Scene scene(String material, boolean loaded) {
+        return TestDoubles.scene(World.NETHER, armor(material), new BlockPos(0, 64, 0), loaded);
+    }
+
+    private static int interval(String material) {
+        return trimEffects.getConfig().getInterval(RegistryKey.of(RegistryKeys.TRIM_MATERIAL, Identifier.ofVanilla(material)));
+    }
+
+    // Bytes one evaluation may allocate when evaluations are the given number of ticks apart.
+    // Mirrors TrimEffects.applyEffect: an effect is only re-added once its remaining duration
+    // drops to the refresh threshold, so each refresh is spread over the evaluations before it.
+    private static long bytesPerEvaluation(String material, int ticksBetweenEvaluations) {
+        var budget = BUDGETS.get(material);
+        int interval = interval(material);
+        int threshold = Math.min(200 + interval, budget.duration() - interval);
+        int evaluationsPerRefresh = Math.max(1, Math.ceilDiv(budget.duration() - threshold, ticksBetweenEvaluations));
+        return Math.ceilDiv(budget.effects() * STATUS_EFFECT_BYTES, evaluationsPerRefresh) + budget.extraBytes();
+    }
+
+    static Stream<Arguments> materials() {
+        return BUDGETS.keySet().stream()
+            .sorted()
+            .flatMap(material -> Stream.of(Arguments.of(material, false), Arguments.of(material, true)));
+    }
+
+    // Total bytes over all measured calls, dividing per call would round small allocations down to zero
+    private static long allocatedBytes(Runnable call) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            call.run();
+        }
+        long thread = Thread.currentThread().threadId();
+        long before = THREADS.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            call.run();
+        }
+        long after = THREADS.getThreadAllocatedBytes(thread);
+        return after - before;
+    }
+
+    @Test
+    void handleTickOnlyAllocatesForDueEvaluations() {
+        var scene = scene("diamond", true);
+        var state = new TrimEffects.PlayerState();
+
+        // Single tick steps, so most calls take the early "nothing due" return and must allocate nothing
+        long bytes = allocatedBytes(() -> {
+            scene.advance(1);
+            trimEffects.handleTick(scene.player, state);
+        });
+
+        int interval = interval("diamond");
+        long budget = bytesPerEvaluation("diamond", interval) * (MEASURED_ITERATIONS / interval);
+        assertTrue(bytes <= budget, "handleTick allocated " + bytes + " bytes over " + MEASURED_ITERATIONS + " calls, budget is " + budget);
+    }
+
+    @ParameterizedTest(name = "{0}, chunks loaded: {1}")
+    @MethodSource("materials")
+    void materialHandlerStaysWithinBudget(String material, boolean loaded) {
+        var scene = scene(material, loaded);
+        var state = new TrimEffects.PlayerState();
+
+        long bytes = allocatedBytes(() -> {
+            scene.advance(DUE_STEP);
+            trimEffects.handleTick(scene.player, state);
+        });
+
+        long budget = bytesPerEvaluation(material, DUE_STEP) * MEASURED_ITERATIONS;
+        assertTrue(bytes <= budget, material + " handler allocated " + bytes + " bytes over " + MEASURED_ITERATIONS + " calls, budget is " + budget);
+    }
+
+}
@@ -19,15 +19,12 @@ public abstract class MixinServerPlayerEntity extends LivingEntity {
     }
 
     @Unique
-    private int trimeffects$ageUpdated;
+    private final TrimEffects.PlayerState trimeffects$state = new TrimEffects.PlayerState();
 
     @Inject(method = "tick()V", at = @At("TAIL"))
     private void trimeffects$afterTick(CallbackInfo info) {
-        if (trimeffects$ageUpdated < age - 10) {
-            trimeffects$ageUpdated = age;
-            TrimEffects.getInstance().handleTick((ServerPlayerEntity) (Object) this);
-            // test
-        }
+        // Cadence is decided per trim material inside handleTick
+        TrimEffects.getInstance().handleTick((ServerPlayerEntity) (Object) this, trimeffects$state);
     }
 
 }
@@ -0,0 +1,19 @@
+package dev.foxgirl.trimeffects.mixin;
+
+import dev.foxgirl.trimeffects.TrimEffects;
+import net.minecraft.server.MinecraftServer;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(MinecraftServer.class)
+public abstract class MixinMinecraftServer {
+
+    @Inject(method = "shutdown()V", at = @At("TAIL"))
+    private void trimeffects$afterShutdown(CallbackInfo info) {
+        // Release the stopped server's worlds, the integrated server can be started again later
+        TrimEffects.getInstance().handleServerStopped();
+    }
+
+}